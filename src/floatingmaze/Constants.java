@@ -12,10 +12,15 @@ public class Constants {
 	public static int accelerationForce = 1; //the force with which a player is accelerated when pressing a key
 	public static int screenWidth = 300; //the width of the window
 	public static int screenHeight = 300; //the height of the window
+	public static int worldWidth = 300; //the width of the world, which may be larger than the window
+	public static int worldHeight = 300; //the height of the world, which may be larger than the window
+	public static int viewportWidth = 300; //the width of the egocentric view centered on the player
+	public static int viewportHeight = 300; //the height of the egocentric view centered on the player
 	public static int startingX = 140; //the initial x-position of the player
 	public static int startingY = 240; //the initial y-position of the player
 	public static int playerSize = 20; //the radius of the player
 	public static Color backgroundColor = Color.WHITE; //the background color of the window
+	public static Color paddingColor = Color.BLACK; //the color outside the world, seen in the egocentric view
 	public static Color wallColor = Color.BLACK; //the color of the Walls
 	public static Color deathWallColor = new Color(0.3f, 0.3f, 0.3f); //the color of the DeathWalls
 	public static Color scoreZoneColor = new Color(0.9f, 0.9f, 0.9f); //the color of the ScoreZones
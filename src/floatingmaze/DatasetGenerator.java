@@ -0,0 +1,147 @@
+package floatingmaze;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DatasetGenerator --- Runs headless Worlds in parallel under given Policies and saves the transitions as .npy files.
+ *
+ * Each transition holds the observation an action was taken in, the action, the reward collected during the
+ * frame skip and whether the episode ended, after which the World is reset. Actions are executed with the same
+ * convention as the notebook, where a pressed key is held for all but the last frame of the frame skip.
+ */
+public class DatasetGenerator {
+	private static final int CHUNK_SIZE = 256; //the number of transitions handed to the writer at a time
+	private static final int CHUNKS_PER_THREAD = 4; //the number of chunks each thread may have waiting to be written
+
+	private Policy[] policies; //the Policy of each environment
+	private int numThreads, res, frameSkip, maxSteps;
+
+	public DatasetGenerator(Policy[] policies, int numThreads, int res, int frameSkip, int maxSteps) {
+		if (policies.length < 1 || numThreads < 1) {
+			throw new IllegalArgumentException("At least one environment and one thread are needed: " + policies.length + " environments, " + numThreads + " threads");
+		}
+		if (frameSkip < 1) {
+			throw new IllegalArgumentException("The frame skip must be at least 1: " + frameSkip);
+		}
+		this.policies = policies;
+		this.numThreads = Math.min(numThreads, policies.length);
+		this.res = res;
+		this.frameSkip = frameSkip;
+		this.maxSteps = maxSteps;
+	}
+
+	// Generates a number of transitions in total, split into shards of at most shardSize transitions per environment.
+	// Every environment gets a fixed share of the transitions, so the dataset does not depend on thread scheduling
+	public void generate(long transitions, Path dir, int shardSize) throws IOException, InterruptedException {
+		if (transitions < 0) {
+			throw new IllegalArgumentException("The number of transitions cannot be negative: " + transitions);
+		}
+		int frameHeight = Constants.screenHeight / this.res;
+		int frameWidth = Constants.screenWidth / this.res;
+		DatasetWriter writer = new DatasetWriter(dir, this.policies.length, frameHeight, frameWidth, shardSize,
+				CHUNK_SIZE, CHUNKS_PER_THREAD * this.numThreads);
+		AtomicBoolean stopped = new AtomicBoolean(false); //set when a thread fails, to stop the others
+		ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+		try {
+			ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+			for (int t = 0; t < this.numThreads; t++) {
+				int thread = t;
+				tasks.add(executor.submit(() -> {
+					this.runEnvs(thread, transitions, writer, stopped);
+					return null;
+				}));
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} catch (Exception e) {
+			//stop the remaining threads before the writer is closed, since they would otherwise wait for chunks forever
+			stopped.set(true);
+			executor.shutdownNow();
+			throw new IOException("Dataset generation failed: " + e.getMessage(), e);
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+			writer.close();
+		}
+	}
+
+	// Steps the environments belonging to a thread, one chunk at a time, until each has generated its share
+	private void runEnvs(int thread, long transitions, DatasetWriter writer, AtomicBoolean stopped) throws IOException, InterruptedException {
+		int numEnvs = this.policies.length;
+		ArrayList<Env> envs = new ArrayList<Env>();
+		for (int i = thread; i < numEnvs; i += this.numThreads) {
+			long share = transitions / numEnvs + (i < transitions % numEnvs ? 1 : 0); //the remainder goes to the first environments
+			envs.add(new Env(i, this.policies[i], share));
+		}
+		boolean running = true;
+		while (running && !stopped.get()) {
+			running = false;
+			for (Env env : envs) {
+				if (env.remaining == 0) {
+					continue;
+				}
+				DatasetWriter.Chunk chunk = writer.takeChunk(env.index);
+				while (!chunk.isFull() && env.remaining > 0 && !stopped.get()) {
+					env.step(chunk);
+					env.remaining--;
+				}
+				writer.submit(chunk);
+				running |= env.remaining > 0;
+			}
+		}
+	}
+
+	/**
+	 * Env --- A headless World together with its Policy and episode state.
+	 */
+	private class Env {
+		private int index;
+		private World world;
+		private Policy policy;
+		private byte[] obs; //the current observation
+		private int steps; //the number of steps taken in the current episode
+		private int score; //the score at the last step
+		private long remaining; //the number of transitions left to generate
+
+		private Env(int index, Policy policy, long remaining) {
+			this.index = index;
+			this.remaining = remaining;
+			this.policy = policy;
+			this.world = Maze.createWorld(true);
+			this.world.setSize(Constants.screenWidth, Constants.screenHeight);
+			this.obs = ScreenData.getAllPixels(this.world, res);
+		}
+
+		// Takes one step with an action chosen by the Policy and adds the transition to a chunk
+		private void step(DatasetWriter.Chunk chunk) {
+			int action = this.policy.selectAction(this.world, this.obs);
+			int reward = 0;
+			boolean done = false;
+			for (int f = 0; f < frameSkip && !done; f++) {
+				int[] RLStatus = this.world.trainingStepAction(action, f < frameSkip - 1); //contains {player score, game finished}
+				reward += RLStatus[0] - this.score;
+				this.score = RLStatus[0];
+				done = RLStatus[1] == 1;
+			}
+			this.steps++;
+			if (!done && this.steps > maxSteps) {
+				this.world.reset();
+				done = true;
+			}
+			if (done) {
+				this.steps = 0;
+				this.score = 0;
+			}
+			chunk.add(this.obs, action, reward, done);
+			this.obs = ScreenData.getAllPixels(this.world, res);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package floatingmaze;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * DatasetWriter --- Writes transitions from several environments to sharded .npy files on a background thread.
+ *
+ * Every environment has its own sequence of shards, so that each shard holds consecutive transitions:
+ * envXXX_shardXXXXX_{obs, actions, rewards, dones}.npy. Producers fill Chunks taken from a fixed pool and
+ * hand them to the writer thread, so the amount of data waiting to be written is bounded by the pool size.
+ */
+public class DatasetWriter {
+	private Path dir;
+	private int frameHeight, frameWidth, shardSize;
+	private BlockingQueue<Chunk> free; //chunks ready to be filled by producers
+	private BlockingQueue<Chunk> pending; //filled chunks waiting to be written
+	private Shard[] shards; //the currently open shard of each environment
+	private int[] shardCount; //the number of shards started by each environment
+	private Thread thread;
+	private volatile IOException error; //the first error encountered by the writer thread
+
+	public DatasetWriter(Path dir, int numEnvs, int frameHeight, int frameWidth, int shardSize, int chunkSize, int queueLength) throws IOException {
+		if (shardSize < 1) {
+			throw new IllegalArgumentException("The shard size must be at least 1: " + shardSize);
+		}
+		Files.createDirectories(dir);
+		this.dir = dir;
+		this.frameHeight = frameHeight;
+		this.frameWidth = frameWidth;
+		this.shardSize = shardSize;
+		this.free = new ArrayBlockingQueue<Chunk>(queueLength);
+		this.pending = new ArrayBlockingQueue<Chunk>(queueLength + 1); //room for the end marker
+		for (int i = 0; i < queueLength; i++) {
+			this.free.add(new Chunk(chunkSize, frameHeight * frameWidth));
+		}
+		this.shards = new Shard[numEnvs];
+		this.shardCount = new int[numEnvs];
+		this.thread = new Thread(this::run, "DatasetWriter");
+		this.thread.start();
+	}
+
+	// Takes an empty Chunk to fill with transitions from an environment, waiting if all Chunks are being written
+	public Chunk takeChunk(int env) throws IOException, InterruptedException {
+		if (this.error != null) {
+			throw this.error;
+		}
+		Chunk chunk = this.free.take();
+		chunk.env = env;
+		chunk.size = 0;
+		return chunk;
+	}
+
+	// Hands a filled Chunk to the writer thread
+	public void submit(Chunk chunk) throws InterruptedException {
+		this.pending.put(chunk);
+	}
+
+	// Writes chunks until the end marker is received
+	private void run() {
+		try {
+			while (true) {
+				Chunk chunk = this.pending.take();
+				if (chunk.env < 0) {
+					break;
+				}
+				if (this.error == null) { //after an error, chunks are only recycled so that producers do not wait forever
+					this.write(chunk);
+				}
+				this.free.put(chunk);
+			}
+			for (Shard shard : this.shards) {
+				if (shard != null) {
+					shard.close();
+				}
+			}
+		} catch (IOException e) {
+			this.error = e;
+		} catch (InterruptedException e) {
+			this.error = new IOException("Dataset writer interrupted", e);
+		}
+	}
+
+	// Writes a chunk to the shards of its environment, starting new shards when they are full
+	private void write(Chunk chunk) {
+		try {
+			int offset = 0;
+			while (offset < chunk.size) {
+				Shard shard = this.shards[chunk.env];
+				if (shard == null || shard.size == this.shardSize) {
+					if (shard != null) {
+						shard.close();
+					}
+					shard = new Shard(chunk.env, this.shardCount[chunk.env]++);
+					this.shards[chunk.env] = shard;
+				}
+				int n = Math.min(chunk.size - offset, this.shardSize - shard.size);
+				shard.write(chunk, offset, n);
+				offset += n;
+			}
+		} catch (IOException e) {
+			this.error = e;
+		}
+	}
+
+	// Writes all remaining chunks, closes the files and waits for the writer thread to finish
+	public void close() throws IOException, InterruptedException {
+		Chunk end = new Chunk(0, 0);
+		end.env = -1;
+		this.pending.put(end);
+		this.thread.join();
+		if (this.error != null) {
+			throw this.error;
+		}
+	}
+
+	/**
+	 * Chunk --- A block of consecutive transitions from one environment.
+	 */
+	public static class Chunk {
+		private int env, size;
+		private byte[] obs, actions, dones;
+		private int[] rewards;
+
+		private Chunk(int capacity, int frameSize) {
+			this.obs = new byte[capacity * frameSize];
+			this.actions = new byte[capacity];
+			this.rewards = new int[capacity];
+			this.dones = new byte[capacity];
+		}
+
+		// Adds a transition, given the observation the action was taken in
+		public void add(byte[] obs, int action, int reward, boolean done) {
+			System.arraycopy(obs, 0, this.obs, this.size * obs.length, obs.length);
+			this.actions[this.size] = (byte) action;
+			this.rewards[this.size] = reward;
+			this.dones[this.size] = (byte) (done ? 1 : 0);
+			this.size++;
+		}
+
+		// Checks whether the Chunk is full
+		public boolean isFull() {
+			return this.size == this.actions.length;
+		}
+	}
+
+	/**
+	 * Shard --- The four .npy files of one shard.
+	 */
+	private class Shard {
+		private NpyWriter obs, actions, rewards, dones;
+		private int size;
+
+		private Shard(int env, int index) throws IOException {
+			String prefix = String.format("env%03d_shard%05d_", env, index);
+			this.obs = new NpyWriter(dir.resolve(prefix + "obs.npy"), "|u1", 1, new int[] {frameHeight, frameWidth});
+			this.actions = new NpyWriter(dir.resolve(prefix + "actions.npy"), "|u1", 1, new int[0]);
+			this.rewards = new NpyWriter(dir.resolve(prefix + "rewards.npy"), "<i4", 4, new int[0]);
+			this.dones = new NpyWriter(dir.resolve(prefix + "dones.npy"), "|u1", 1, new int[0]);
+		}
+
+		// Writes n transitions of a chunk, starting at an offset
+		private void write(Chunk chunk, int offset, int n) throws IOException {
+			int frameSize = frameHeight * frameWidth;
+			this.obs.write(chunk.obs, offset * frameSize, n * frameSize);
+			this.actions.write(chunk.actions, offset, n);
+			this.rewards.write(chunk.rewards, offset, n);
+			this.dones.write(chunk.dones, offset, n);
+			this.size += n;
+		}
+
+		private void close() throws IOException {
+			this.obs.close();
+			this.actions.close();
+			this.rewards.close();
+			this.dones.close();
+		}
+	}
+}
@@ -3,7 +3,7 @@ package floatingmaze;
 /**
  * DeathWall --- Represents a wall that immediately kills the player and restarts the game upon impact.
  */
-public class DeathWall {
+public class DeathWall implements Movable {
 	public int x1, x2, y1, y2;
 	
 	public DeathWall(int x1, int x2, int y1, int y2) {
@@ -20,4 +20,22 @@ public class DeathWall {
 			   p.getYPosition() + p.getSize() > this.y1 &&
 			   p.getYPosition() < this.y2;
 	}
+	
+	// Gets the x-coordinate of the left edge of the DeathWall
+	public int getX() {
+		return this.x1;
+	}
+	
+	// Gets the y-coordinate of the top edge of the DeathWall
+	public int getY() {
+		return this.y1;
+	}
+	
+	// Moves the DeathWall, keeping its size
+	public void moveTo(int x, int y, int vx, int vy) {
+		this.x2 += x - this.x1;
+		this.y2 += y - this.y1;
+		this.x1 = x;
+		this.y1 = y;
+	}
 }
@@ -3,7 +3,7 @@ package floatingmaze;
 /**
  * Goal --- Represents a goal that awards the player with points and restarts the game upon impact.
  */
-public class Goal {
+public class Goal implements Movable {
 	
 	public int x1, x2, y1, y2;
 	private int score;
@@ -28,4 +28,22 @@ public class Goal {
 	public int getScore() {
 		return score;
 	}
+	
+	// Gets the x-coordinate of the left edge of the Goal
+	public int getX() {
+		return this.x1;
+	}
+	
+	// Gets the y-coordinate of the top edge of the Goal
+	public int getY() {
+		return this.y1;
+	}
+	
+	// Moves the Goal, keeping its size
+	public void moveTo(int x, int y, int vx, int vy) {
+		this.x2 += x - this.x1;
+		this.y2 += y - this.y1;
+		this.x1 = x;
+		this.y1 = y;
+	}
 }
\ No newline at end of file
@@ -1,7 +1,15 @@
 package floatingmaze;
 
 import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
 import javax.swing.JFrame;
 import py4j.GatewayServer;
 
@@ -12,6 +20,7 @@ public class Maze {
 	public JFrame app;
 	public World world;
 	public TrainingMode training;
+	public Spectator spectator;
 	
 	public static void main(String[] args) {
 		TrainingMode training = TrainingMode.NONE; //set the training mode
@@ -31,15 +40,7 @@ public class Maze {
 	// Launches the JFrame window
 	public void startWindow(boolean trainingMode) {
 		this.app = new JFrame("Levitation Simulation");	
-		Player p = new Player(Constants.startingX, Constants.startingY, Constants.playerSize);
-		this.world = new World(p, trainingMode);
-		
-		world.addWall(new Wall(0, 10, 0, 300));
-		world.addWall(new Wall(0, 300, 290, 300));
-		world.addWall(new Wall(0, 300, 0, 10));
-		world.addWall(new Wall(290, 300, 0, 300));
-		world.addScoreZone(new ScoreZone(10, 290, 145, 155, 10));
-		world.addGoal(new Goal(10, 290, 10, 60, 30));
+		this.world = createWorld(trainingMode);
 		
 		world.setFocusable(true);
 		world.setPreferredSize(new Dimension(Constants.screenWidth, Constants.screenHeight));
@@ -50,6 +51,20 @@ public class Maze {
 	    app.setVisible(true);
 	}
 	
+	// Creates a World containing the level. Used both for the window and for headless environments
+	public static World createWorld(boolean trainingMode) {
+		Player p = new Player(Constants.startingX, Constants.startingY, Constants.playerSize);
+		World world = new World(p, trainingMode);
+		
+		world.addWall(new Wall(0, 10, 0, 300));
+		world.addWall(new Wall(0, 300, 290, 300));
+		world.addWall(new Wall(0, 300, 0, 10));
+		world.addWall(new Wall(290, 300, 0, 300));
+		world.addScoreZone(new ScoreZone(10, 290, 145, 155, 10));
+		world.addGoal(new Goal(10, 290, 10, 60, 30));
+		return world;
+	}
+	
 	// Progress one training step without any inputs
 	public byte[] stepWindowTraining(int res) {
 		int[] RLStatus = new int[2]; //contains {player score, game finished}
@@ -97,6 +112,55 @@ public class Maze {
 		return ScreenData.getAllPixels(this.world, res);
 	}
 	
+	// Progress one training step given an action index, and return the pixels at several resolutions from a single render
+	public byte[] stepWindowTrainingPyramid(int action, boolean acc, int levelMask) {
+		int[] RLStatus = this.world.trainingStepAction(action, acc); //contains {player score, game finished}
+		byte[] rewardData = new byte[] {(byte)(RLStatus[0]), (byte)RLStatus[1]}; //convert to bytes
+		byte[] pixelData = getPixelPyramid(levelMask);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(rewardData.length + pixelData.length);
+        byteBuffer.put(rewardData);
+        byteBuffer.put(pixelData);
+		return byteBuffer.array(); //returns {score, finished, level 1 pixels, level 2 pixels, ...}
+	}
+	
+	// Progress one training step given an action index, and return the egocentric view of the player
+	public byte[] stepWindowTrainingViewport(int action, boolean acc, int res, boolean minimap) {
+		int[] RLStatus = this.world.trainingStepAction(action, acc); //contains {player score, game finished}
+		byte[] rewardData = new byte[] {(byte)(RLStatus[0]), (byte)RLStatus[1]}; //convert to bytes
+		byte[] pixelData = getViewportData(res, minimap);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(rewardData.length + pixelData.length);
+        byteBuffer.put(rewardData);
+        byteBuffer.put(pixelData);
+		return byteBuffer.array(); //returns {score, finished, view pixels, minimap pixels}
+	}
+	
+	// Gets the pixel data of the egocentric view centered on the player, optionally followed by a minimap of the world
+	public byte[] getViewportData(int res, boolean minimap) {
+		return ScreenData.getViewportPixels(this.world, res, minimap);
+	}
+	
+	// Gets the pixel data of several pyramid levels in a byte-array, where bit k of levelMask selects the level
+	// downscaled by a factor 2^k. The levels are concatenated from the highest resolution to the lowest
+	public byte[] getPixelPyramid(int levelMask) {
+		int[] factors = new int[Integer.bitCount(levelMask)];
+		int i = 0;
+		for (int k = 0; k < 31; k++) {
+			if ((levelMask & (1 << k)) != 0) {
+				factors[i++] = 1 << k;
+			}
+		}
+		byte[][] levels = ScreenData.getPixelPyramid(this.world, factors);
+		int length = 0;
+		for (byte[] level : levels) {
+			length += level.length;
+		}
+		ByteBuffer byteBuffer = ByteBuffer.allocate(length);
+		for (byte[] level : levels) {
+			byteBuffer.put(level);
+		}
+		return byteBuffer.array();
+	}
+	
 	// Returns important game constants. This method is used for Py4J
 	public int getConstant(int constant) { //integer value required for Py4J
 		switch(constant) {
@@ -110,11 +174,77 @@ public class Maze {
 				return Constants.screenHeight;
 			case 4:
 				return Constants.timeStep;
+			case 5:
+				return Constants.worldWidth;
+			case 6:
+				return Constants.worldHeight;
+			case 7:
+				return Constants.viewportWidth;
+			case 8:
+				return Constants.viewportHeight;
 			default:
 				return 0;
 		}
 	}
 	
+	// Evaluates a network exported from the notebook entirely in Java and returns the total reward of each episode
+	public int[] evaluatePolicy(String weightFile, int episodes, double eps, int res, int frameSkip, int maxSteps, int numEnvs) throws IOException {
+		PolicyNetwork net = new PolicyNetwork(weightFile);
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		return new PolicyEvaluator(net, numEnvs, numThreads, res, frameSkip, maxSteps).evaluate(episodes, eps);
+	}
+	
+	// Generates an offline dataset of transitions in a directory, without any Python in the loop. The policy is either
+	// "random", or the directory of an earlier dataset whose actions are replayed, one environment per environment
+	public void generateDataset(String dir, String policy, long transitions, int numEnvs, int res, int frameSkip, int maxSteps, int shardSize) throws IOException, InterruptedException {
+		Policy[] policies = new Policy[numEnvs];
+		for (int i = 0; i < numEnvs; i++) {
+			if (policy.equals("random")) {
+				policies[i] = new RandomPolicy(5, i);
+			}
+			else {
+				String pattern = String.format("glob:env%03d_shard*_actions.npy", i);
+				PathMatcher matcher = FileSystems.getDefault().getPathMatcher(pattern);
+				try (Stream<Path> files = Files.list(Paths.get(policy))) {
+					policies[i] = new ReplayPolicy(files.filter(f -> matcher.matches(f.getFileName())).sorted().toArray(Path[]::new));
+				}
+			}
+		}
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		new DatasetGenerator(policies, numThreads, res, frameSkip, maxSteps).generate(transitions, Paths.get(dir), shardSize);
+	}
+	
+	// Shows the world in a separate window, updated at most fps times per second, without slowing down training
+	public void startSpectator(int fps) {
+		this.checkWorldStarted();
+		this.stopSpectator();
+		this.spectator = new Spectator(this.world, fps);
+		this.spectator.start();
+	}
+	
+	// Saves the frames of the world as PNG files in a directory, at most fps times per second, without slowing down training
+	public void startSpectator(String frameDir, int fps) {
+		this.checkWorldStarted();
+		this.stopSpectator();
+		this.spectator = new Spectator(this.world, fps, new File(frameDir));
+		this.spectator.start();
+	}
+	
+	// Checks that there is a world to spectate
+	private void checkWorldStarted() {
+		if (this.world == null) {
+			throw new IllegalStateException("There is no world to spectate. Call startWindow before starting a spectator");
+		}
+	}
+	
+	// Stops the current Spectator, if any
+	public void stopSpectator() {
+		if (this.spectator != null) {
+			this.spectator.stop();
+			this.spectator = null;
+		}
+	}
+	
 	// Resets the world to its original state
 	public void reset() {
 		this.world.reset();
@@ -0,0 +1,57 @@
+package floatingmaze;
+
+/**
+ * Motion --- Moves an obstacle back and forth along a straight line, with a fixed period.
+ */
+public class Motion {
+	private Movable obstacle;
+	private int x0, y0; //the starting position of the obstacle
+	private int dx, dy; //the displacement at the far end of the path
+	private int period; //the number of time steps to travel to the far end and back
+	private int phase; //the number of time steps the path is shifted by
+	
+	public Motion(Movable obstacle, int dx, int dy, int period) {
+		this(obstacle, dx, dy, period, 0);
+	}
+	
+	public Motion(Movable obstacle, int dx, int dy, int period, int phase) {
+		if (period < 2) {
+			throw new IllegalArgumentException("The period must be at least 2 time steps: " + period);
+		}
+		this.obstacle = obstacle;
+		this.x0 = obstacle.getX();
+		this.y0 = obstacle.getY();
+		this.dx = dx;
+		this.dy = dy;
+		this.period = period;
+		this.phase = phase;
+	}
+	
+	// Gets the obstacle moved by the Motion
+	public Movable getObstacle() {
+		return this.obstacle;
+	}
+	
+	// Moves the obstacle to its position at a given time step
+	public void step(int tick) {
+		int x = this.getXOffset(tick);
+		int y = this.getYOffset(tick);
+		this.obstacle.moveTo(this.x0 + x, this.y0 + y, x - this.getXOffset(tick - 1), y - this.getYOffset(tick - 1));
+	}
+	
+	// Gets the fraction of the path covered at a given time step, going from 0 to 1 and back
+	private double getFraction(int tick) {
+		int t = Math.floorMod(tick + this.phase, this.period);
+		return 2 * Math.min(t, this.period - t) / (double) this.period;
+	}
+	
+	// Gets the x-offset from the starting position at a given time step
+	private int getXOffset(int tick) {
+		return (int) Math.round(this.dx * this.getFraction(tick));
+	}
+	
+	// Gets the y-offset from the starting position at a given time step
+	private int getYOffset(int tick) {
+		return (int) Math.round(this.dy * this.getFraction(tick));
+	}
+}
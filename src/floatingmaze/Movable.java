@@ -0,0 +1,16 @@
+package floatingmaze;
+
+/**
+ * Movable --- An obstacle that can be moved by a Motion.
+ */
+public interface Movable {
+	
+	// Gets the x-coordinate of the left edge
+	public int getX();
+	
+	// Gets the y-coordinate of the top edge
+	public int getY();
+	
+	// Moves the obstacle so that its top left corner is at (x,y), keeping its size. (vx,vy) is its current velocity
+	public void moveTo(int x, int y, int vx, int vy);
+}
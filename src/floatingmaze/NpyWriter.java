@@ -0,0 +1,124 @@
+package floatingmaze;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * NpyWriter --- Streams rows of a fixed shape to a NumPy .npy file through a buffered FileChannel.
+ *
+ * The header is written with room to spare and rewritten with the final number of rows when the file is closed,
+ * so the file can be loaded with np.load(path, mmap_mode='r').
+ */
+public class NpyWriter {
+	private static final int HEADER_SIZE = 128; //the total header size, which must be a multiple of 64
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private String descr; //the NumPy type string, e.g. '|u1' or '<i4'
+	private int[] rowShape; //the shape of a single row
+	private int rowBytes; //the number of bytes in a single row
+	private long bytesWritten;
+
+	public NpyWriter(Path path, String descr, int itemSize, int[] rowShape) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		this.descr = descr;
+		this.rowShape = rowShape;
+		this.rowBytes = itemSize;
+		for (int dim : rowShape) {
+			this.rowBytes *= dim;
+		}
+		this.writeHeader(0);
+		this.channel.position(HEADER_SIZE);
+	}
+
+	// Writes the .npy header for a given number of rows at the start of the file
+	private void writeHeader(long rows) throws IOException {
+		ByteBuffer header = this.createHeader(rows);
+		while (header.hasRemaining()) {
+			this.channel.write(header, header.position());
+		}
+	}
+
+	// Creates the .npy header for a given number of rows, padded to HEADER_SIZE bytes
+	private ByteBuffer createHeader(long rows) {
+		StringBuilder shape = new StringBuilder("(").append(rows).append(",");
+		for (int dim : this.rowShape) {
+			shape.append(" ").append(dim).append(",");
+		}
+		shape.append(")");
+		StringBuilder dict = new StringBuilder("{'descr': '").append(this.descr).append("', 'fortran_order': False, 'shape': ").append(shape).append(", }");
+		int dictLength = HEADER_SIZE - 10; //the magic string, version and header length take 10 bytes
+		if (dict.length() + 1 > dictLength) {
+			throw new IllegalStateException("The .npy header does not fit in " + HEADER_SIZE + " bytes: " + dict);
+		}
+		while (dict.length() < dictLength - 1) {
+			dict.append(' ');
+		}
+		dict.append('\n');
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII));
+		header.put((byte) 1).put((byte) 0); //format version 1.0
+		header.putShort((short) dictLength);
+		header.put(dict.toString().getBytes(StandardCharsets.US_ASCII));
+		header.flip();
+		return header;
+	}
+
+	// Writes bytes, flushing the buffer to the file when it is full. Writes larger than the buffer bypass it
+	public void write(byte[] values, int offset, int length) throws IOException {
+		if (length >= BUFFER_SIZE) {
+			this.flush();
+			ByteBuffer direct = ByteBuffer.wrap(values, offset, length);
+			while (direct.hasRemaining()) {
+				this.bytesWritten += this.channel.write(direct);
+			}
+			return;
+		}
+		while (length > 0) {
+			int n = Math.min(length, this.buffer.remaining());
+			this.buffer.put(values, offset, n);
+			offset += n;
+			length -= n;
+			if (!this.buffer.hasRemaining()) {
+				this.flush();
+			}
+		}
+	}
+
+	// Writes 32-bit integers in little-endian order, flushing the buffer to the file when it is full
+	public void write(int[] values, int offset, int length) throws IOException {
+		for (int i = offset; i < offset + length; i++) {
+			if (this.buffer.remaining() < 4) {
+				this.flush();
+			}
+			this.buffer.putInt(values[i]);
+		}
+	}
+
+	// Writes the buffered bytes to the file
+	private void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.bytesWritten += this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	// Flushes the remaining data, writes the final header and closes the file
+	public void close() throws IOException {
+		this.flush();
+		if (this.bytesWritten % this.rowBytes != 0) {
+			throw new IOException("Incomplete row in .npy file: " + this.bytesWritten + " bytes with " + this.rowBytes + " bytes per row");
+		}
+		this.writeHeader(this.bytesWritten / this.rowBytes);
+		this.channel.close();
+	}
+}
@@ -76,33 +76,34 @@ public class Player {
 		this.vy += ay;
 	}
 	
-	// Updates the position and velocity of the player, taking walls into account
+	// Updates the position and velocity of the player, taking walls into account.
+	// The velocity is reflected relative to the velocity of the wall, which is zero for static walls
 	public void stepPosition(ArrayList<Wall> ws) {
 		this.stepPosition();
 		for (Wall w : ws) {
 			switch (w.checkCollision(this)) {
 				case RIGHT:
 					this.x = w.x2;
-					if (this.vx < 0) {
-						this.vx = (-1) * this.vx;
+					if (this.vx < w.vx) {
+						this.vx = 2 * w.vx - this.vx;
 					}
 					break;
 				case LEFT:
 					this.x = w.x1 - this.d;
-					if (this.vx > 0) {
-						this.vx = (-1) * this.vx;
+					if (this.vx > w.vx) {
+						this.vx = 2 * w.vx - this.vx;
 					}
 					break;
 				case ABOVE:
 					this.y = w.y1 - this.d;
-					if (this.vy > 0) {
-						this.vy = (-1) * this.vy;
+					if (this.vy > w.vy) {
+						this.vy = 2 * w.vy - this.vy;
 					}
 					break;
 				case BELOW:
 					this.y = w.y2;
-					if (this.vy < 0) {
-						this.vy = (-1) * this.vy;
+					if (this.vy < w.vy) {
+						this.vy = 2 * w.vy - this.vy;
 					}
 					break;
 				case NONE:
@@ -0,0 +1,10 @@
+package floatingmaze;
+
+/**
+ * Policy --- Chooses actions for an environment, using the convention {0: UP, 1: DOWN, 2: LEFT, 3: RIGHT, 4: key released}.
+ */
+public interface Policy {
+	
+	// Chooses an action given the World and the current observation
+	public int selectAction(World world, byte[] obs);
+}
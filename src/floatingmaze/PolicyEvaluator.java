@@ -0,0 +1,173 @@
+package floatingmaze;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PolicyEvaluator --- Runs evaluation episodes of a PolicyNetwork on several headless Worlds in parallel, without Python.
+ *
+ * Actions follow the same convention as the notebook: {0: UP, 1: DOWN, 2: LEFT, 3: RIGHT, 4: key released}, where a
+ * pressed key is held for all but the last frame of the frame skip. The state is the latest frames, oldest first.
+ */
+public class PolicyEvaluator {
+	private PolicyNetwork net;
+	private int numEnvs, numThreads, res, frameSkip, maxSteps;
+
+	public PolicyEvaluator(PolicyNetwork net, int numEnvs, int numThreads, int res, int frameSkip, int maxSteps) {
+		if (numEnvs < 1 || numThreads < 1) {
+			throw new IllegalArgumentException("At least one environment and one thread are needed: " + numEnvs + " environments, " + numThreads + " threads");
+		}
+		int height = Constants.screenHeight / res;
+		int width = Constants.screenWidth / res;
+		if (net.getInputHeight() != height || net.getInputWidth() != width) {
+			throw new IllegalArgumentException("Network expects frames of " + net.getInputHeight() + "x" + net.getInputWidth()
+					+ ", but the frames at resolution " + res + " are " + height + "x" + width);
+		}
+		this.net = net;
+		this.numEnvs = numEnvs;
+		this.numThreads = Math.min(numThreads, numEnvs);
+		this.res = res;
+		this.frameSkip = frameSkip;
+		this.maxSteps = maxSteps;
+	}
+
+	// Runs a number of episodes with an epsilon-greedy policy and returns the total reward of each episode
+	public int[] evaluate(int episodes, double eps) {
+		int[] rewards = new int[episodes];
+		AtomicInteger nextEpisode = new AtomicInteger(0); //episodes are handed out to the environments as they finish
+		AtomicBoolean stopped = new AtomicBoolean(false); //set when a thread fails, to stop the others
+		ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+		try {
+			ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+			for (int t = 0; t < this.numThreads; t++) {
+				//split the environments as evenly as possible between the threads
+				int envs = this.numEnvs / this.numThreads + (t < this.numEnvs % this.numThreads ? 1 : 0);
+				long seed = t;
+				tasks.add(executor.submit(() -> runEnvs(envs, episodes, eps, seed, nextEpisode, stopped, rewards)));
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} catch (Exception e) {
+			//stop the remaining threads, since they would otherwise play all the remaining episodes in the background
+			stopped.set(true);
+			executor.shutdownNow();
+			throw new RuntimeException("Evaluation failed: " + e.getMessage(), e);
+		} finally {
+			executor.shutdown();
+		}
+		return rewards;
+	}
+
+	// Steps a group of environments in lockstep on the current thread, using batched forward passes
+	private void runEnvs(int envs, int episodes, double eps, long seed, AtomicInteger nextEpisode, AtomicBoolean stopped, int[] rewards) {
+		Random r = new Random(seed);
+		int stateSize = this.net.getInputChannels();
+		int numActions = this.net.getOutputSize();
+		int inputSize = this.net.getInputSize();
+		PolicyNetwork.Workspace ws = this.net.createWorkspace(envs);
+		float[] input = new float[envs * inputSize];
+		float[] output = new float[envs * numActions];
+
+		World[] worlds = new World[envs];
+		float[][][] frames = new float[envs][stateSize][]; //ring buffers of the latest frames
+		int[] oldest = new int[envs]; //index of the oldest frame in each ring buffer
+		int[] episode = new int[envs]; //the episode played in each environment, or -1 if finished
+		int[] steps = new int[envs];
+		int[] score = new int[envs];
+		for (int i = 0; i < envs; i++) {
+			worlds[i] = Maze.createWorld(true);
+			worlds[i].setSize(Constants.screenWidth, Constants.screenHeight);
+			int frameSize = inputSize / stateSize; //the frame shape is checked against the network in the constructor
+			for (int s = 0; s < stateSize; s++) {
+				frames[i][s] = new float[frameSize];
+			}
+			episode[i] = startEpisode(worlds[i], frames[i], nextEpisode, episodes);
+		}
+
+		int[] active = new int[envs];
+		while (true) {
+			//gather the states of all running environments into one batch
+			int batch = 0;
+			for (int i = 0; i < envs; i++) {
+				if (episode[i] < 0) {
+					continue;
+				}
+				int frameSize = frames[i][0].length;
+				for (int s = 0; s < stateSize; s++) {
+					float[] frame = frames[i][(oldest[i] + s) % stateSize];
+					System.arraycopy(frame, 0, input, batch * inputSize + s * frameSize, frameSize);
+				}
+				active[batch] = i;
+				batch++;
+			}
+			if (batch == 0 || stopped.get()) {
+				return;
+			}
+			this.net.forward(input, output, batch, ws);
+
+			for (int b = 0; b < batch; b++) {
+				int i = active[b];
+				int action;
+				if (r.nextDouble() < eps) {
+					action = r.nextInt(numActions - 1);
+				}
+				else {
+					action = 0;
+					for (int a = 1; a < numActions; a++) {
+						if (output[b * numActions + a] > output[b * numActions + action]) {
+							action = a;
+						}
+					}
+				}
+
+				//execute the action over the frame skip and push the observed frames
+				boolean done = false;
+				for (int f = 0; f < this.frameSkip && !done; f++) {
+					int[] RLStatus = worlds[i].trainingStepAction(action, f < this.frameSkip - 1);
+					score[i] = RLStatus[0];
+					done = RLStatus[1] == 1;
+					toFloats(ScreenData.getAllPixels(worlds[i], this.res), frames[i][oldest[i]]);
+					oldest[i] = (oldest[i] + 1) % stateSize;
+				}
+				steps[i]++;
+				if (!done && steps[i] > this.maxSteps) {
+					worlds[i].reset();
+					done = true;
+				}
+				if (done) {
+					rewards[episode[i]] = score[i];
+					steps[i] = 0;
+					score[i] = 0;
+					oldest[i] = 0;
+					episode[i] = startEpisode(worlds[i], frames[i], nextEpisode, episodes);
+				}
+			}
+		}
+	}
+
+	// Claims the next episode and fills the state with the starting frame. Returns -1 if all episodes are claimed
+	private int startEpisode(World world, float[][] frames, AtomicInteger nextEpisode, int episodes) {
+		int episode = nextEpisode.getAndIncrement();
+		if (episode >= episodes) {
+			return -1;
+		}
+		toFloats(ScreenData.getAllPixels(world, this.res), frames[0]);
+		for (int s = 1; s < frames.length; s++) {
+			System.arraycopy(frames[0], 0, frames[s], 0, frames[0].length);
+		}
+		return episode;
+	}
+
+	// Converts grayscale pixel values to floats in the range [0, 1]
+	private static void toFloats(byte[] pixels, float[] result) {
+		for (int j = 0; j < pixels.length; j++) {
+			result[j] = (pixels[j] & 0xff) / 255f;
+		}
+	}
+}
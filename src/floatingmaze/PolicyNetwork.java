@@ -0,0 +1,223 @@
+package floatingmaze;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * PolicyNetwork --- A CPU implementation of the forward pass of the convolutional action-value network.
+ *
+ * The weights are loaded from a little-endian binary file with the following layout:
+ * {layer count, input channels, input height, input width} followed by, for each layer,
+ * {type (0: convolution, 1: dense), outputs, kernel size, stride, padding, relu (0 or 1), weights..., biases...}.
+ * All header values are 32-bit integers and all weights are 32-bit floats, in the order used by PyTorch.
+ */
+public class PolicyNetwork {
+	public static final int CONVOLUTION = 0;
+	public static final int DENSE = 1;
+
+	private int layerCount;
+	private int inputChannels, inputHeight, inputWidth; //the shape of a single input sample
+	private int[] type, inC, inH, inW, outC, outH, outW, kernel, stride, padding;
+	private boolean[] relu;
+	private float[][] weights, biases;
+	private int maxActivationSize; //the largest number of activations of a single sample in any layer
+
+	// Loads a network from a weight file
+	public PolicyNetwork(String path) throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(Paths.get(path))).order(ByteOrder.LITTLE_ENDIAN);
+		this.layerCount = data.getInt();
+		int channels = data.getInt();
+		int height = data.getInt();
+		int width = data.getInt();
+		this.inputChannels = channels;
+		this.inputHeight = height;
+		this.inputWidth = width;
+		this.type = new int[layerCount];
+		this.inC = new int[layerCount];
+		this.inH = new int[layerCount];
+		this.inW = new int[layerCount];
+		this.outC = new int[layerCount];
+		this.outH = new int[layerCount];
+		this.outW = new int[layerCount];
+		this.kernel = new int[layerCount];
+		this.stride = new int[layerCount];
+		this.padding = new int[layerCount];
+		this.relu = new boolean[layerCount];
+		this.weights = new float[layerCount][];
+		this.biases = new float[layerCount][];
+		this.maxActivationSize = channels * height * width;
+
+		for (int l = 0; l < layerCount; l++) {
+			this.type[l] = data.getInt();
+			this.outC[l] = data.getInt();
+			this.kernel[l] = data.getInt();
+			this.stride[l] = data.getInt();
+			this.padding[l] = data.getInt();
+			this.relu[l] = data.getInt() != 0;
+			this.inC[l] = channels;
+			this.inH[l] = height;
+			this.inW[l] = width;
+			int weightCount;
+			switch (this.type[l]) {
+				case CONVOLUTION:
+					this.outH[l] = (height - kernel[l] + 2 * padding[l]) / stride[l] + 1;
+					this.outW[l] = (width - kernel[l] + 2 * padding[l]) / stride[l] + 1;
+					weightCount = outC[l] * channels * kernel[l] * kernel[l];
+					break;
+				case DENSE:
+					this.inC[l] = channels * height * width; //dense layers see the flattened input
+					this.inH[l] = 1;
+					this.inW[l] = 1;
+					this.outH[l] = 1;
+					this.outW[l] = 1;
+					weightCount = outC[l] * inC[l];
+					break;
+				default:
+					throw new IOException("Unknown layer type " + this.type[l] + " in layer " + l);
+			}
+			this.weights[l] = readFloats(data, weightCount);
+			this.biases[l] = readFloats(data, outC[l]);
+			channels = outC[l];
+			height = outH[l];
+			width = outW[l];
+			this.maxActivationSize = Math.max(this.maxActivationSize, channels * height * width);
+		}
+		if (data.hasRemaining()) {
+			throw new IOException("Unexpected trailing data in weight file: " + data.remaining() + " bytes");
+		}
+	}
+
+	// Reads a number of floats from the buffer
+	private static float[] readFloats(ByteBuffer data, int count) {
+		float[] values = new float[count];
+		data.asFloatBuffer().get(values);
+		data.position(data.position() + 4 * count);
+		return values;
+	}
+
+	// Allocates the buffers needed to run a forward pass over a batch of a given size
+	public Workspace createWorkspace(int batchSize) {
+		return new Workspace(batchSize, this.maxActivationSize);
+	}
+
+	// Runs a forward pass over a batch of inputs, in the format {sample, channel, y, x}, and writes the outputs
+	public void forward(float[] input, float[] output, int batchSize, Workspace ws) {
+		if (batchSize > ws.batchSize) {
+			throw new IllegalArgumentException("Batch size " + batchSize + " exceeds workspace size " + ws.batchSize);
+		}
+		float[] src = input;
+		for (int l = 0; l < layerCount; l++) {
+			float[] dst = l == layerCount - 1 ? output : (src == ws.a ? ws.b : ws.a); //alternate between the buffers
+			int inSize = inC[l] * inH[l] * inW[l];
+			int outSize = outC[l] * outH[l] * outW[l];
+			for (int n = 0; n < batchSize; n++) {
+				if (type[l] == CONVOLUTION) {
+					convolve(l, src, n * inSize, dst, n * outSize);
+				}
+				else {
+					dense(l, src, n * inSize, dst, n * outSize);
+				}
+			}
+			src = dst;
+		}
+	}
+
+	// Applies a convolutional layer to a single sample
+	private void convolve(int l, float[] src, int srcOffset, float[] dst, int dstOffset) {
+		int k = kernel[l], s = stride[l], pad = padding[l];
+		int h = inH[l], w = inW[l], oh = outH[l], ow = outW[l];
+		float[] wt = weights[l];
+		for (int oc = 0; oc < outC[l]; oc++) {
+			int outBase = dstOffset + oc * oh * ow;
+			float bias = biases[l][oc];
+			for (int i = 0; i < oh * ow; i++) {
+				dst[outBase + i] = bias;
+			}
+			for (int ic = 0; ic < inC[l]; ic++) {
+				int inBase = srcOffset + ic * h * w;
+				int wBase = (oc * inC[l] + ic) * k * k;
+				for (int oy = 0; oy < oh; oy++) {
+					//clip the kernel rows to the input, which is equivalent to zero padding
+					int y0 = oy * s - pad;
+					int kyMin = Math.max(0, -y0);
+					int kyMax = Math.min(k, h - y0);
+					for (int ox = 0; ox < ow; ox++) {
+						int x0 = ox * s - pad;
+						int kxMin = Math.max(0, -x0);
+						int kxMax = Math.min(k, w - x0);
+						float sum = 0;
+						for (int ky = kyMin; ky < kyMax; ky++) {
+							int inRow = inBase + (y0 + ky) * w + x0;
+							int wRow = wBase + ky * k;
+							for (int kx = kxMin; kx < kxMax; kx++) {
+								sum += src[inRow + kx] * wt[wRow + kx];
+							}
+						}
+						dst[outBase + oy * ow + ox] += sum;
+					}
+				}
+			}
+			if (relu[l]) {
+				for (int i = 0; i < oh * ow; i++) {
+					dst[outBase + i] = Math.max(0, dst[outBase + i]);
+				}
+			}
+		}
+	}
+
+	// Applies a dense layer to a single sample
+	private void dense(int l, float[] src, int srcOffset, float[] dst, int dstOffset) {
+		int in = inC[l];
+		float[] wt = weights[l];
+		for (int o = 0; o < outC[l]; o++) {
+			float sum = biases[l][o];
+			int wBase = o * in;
+			for (int i = 0; i < in; i++) {
+				sum += src[srcOffset + i] * wt[wBase + i];
+			}
+			dst[dstOffset + o] = relu[l] ? Math.max(0, sum) : sum;
+		}
+	}
+
+	// Gets the number of values in a single input sample
+	public int getInputSize() {
+		return inputChannels * inputHeight * inputWidth;
+	}
+
+	// Gets the height of the input frames
+	public int getInputHeight() {
+		return inputHeight;
+	}
+
+	// Gets the width of the input frames
+	public int getInputWidth() {
+		return inputWidth;
+	}
+
+	// Gets the number of input channels, i.e. the number of stacked frames
+	public int getInputChannels() {
+		return inputChannels;
+	}
+
+	// Gets the number of outputs, i.e. the number of actions
+	public int getOutputSize() {
+		return outC[layerCount - 1];
+	}
+
+	/**
+	 * Workspace --- Preallocated activation buffers for the forward pass. A Workspace may only be used by one thread at a time.
+	 */
+	public static class Workspace {
+		private float[] a, b;
+		private int batchSize;
+
+		private Workspace(int batchSize, int activationSize) {
+			this.batchSize = batchSize;
+			this.a = new float[batchSize * activationSize];
+			this.b = new float[batchSize * activationSize];
+		}
+	}
+}
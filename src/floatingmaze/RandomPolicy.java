@@ -0,0 +1,22 @@
+package floatingmaze;
+
+import java.util.Random;
+
+/**
+ * RandomPolicy --- Chooses actions uniformly at random.
+ */
+public class RandomPolicy implements Policy {
+	private Random r;
+	private int numActions;
+	
+	public RandomPolicy(int numActions, long seed) {
+		this.r = new Random(seed);
+		this.numActions = numActions;
+	}
+	
+	// Chooses a random action
+	@Override
+	public int selectAction(World world, byte[] obs) {
+		return this.r.nextInt(this.numActions);
+	}
+}
@@ -0,0 +1,47 @@
+package floatingmaze;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ReplayPolicy --- Replays a recorded sequence of actions, and fails if more actions are asked for than were recorded.
+ *
+ * Since the World is deterministic, replaying the actions of a generated dataset with the same number of environments,
+ * frame skip and maximum number of steps reproduces its episodes, e.g. to render them again at another resolution.
+ */
+public class ReplayPolicy implements Policy {
+	private byte[] actions;
+	private int index;
+	
+	// Replays the actions in one or more .npy files of type uint8, in order
+	public ReplayPolicy(Path[] files) throws IOException {
+		ByteArrayOutputStream all = new ByteArrayOutputStream();
+		for (Path file : files) {
+			ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+			int headerLength = data.get(6) == 1 ? (data.getShort(8) & 0xffff) + 10 : data.getInt(8) + 12; //version 1.0 has a 2-byte length
+			String header = new String(data.array(), 0, headerLength, StandardCharsets.US_ASCII);
+			if (!header.contains("'|u1'")) {
+				throw new IOException("Replayed actions must be of type uint8: " + file);
+			}
+			all.write(data.array(), headerLength, data.capacity() - headerLength);
+		}
+		this.actions = all.toByteArray();
+		if (this.actions.length == 0) {
+			throw new IOException("No actions to replay");
+		}
+	}
+	
+	// Gets the next recorded action
+	@Override
+	public int selectAction(World world, byte[] obs) {
+		if (this.index == this.actions.length) {
+			throw new IllegalStateException("Ran out of recorded actions after " + this.actions.length + " steps");
+		}
+		return this.actions[this.index++];
+	}
+}
@@ -3,7 +3,7 @@ package floatingmaze;
 /**
  * ScoreZone --- Represents a zone that disappears and awards point upon impact.
  */
-public class ScoreZone {
+public class ScoreZone implements Movable {
 	public int x1, x2, y1, y2;
 	private int score;
 	private boolean used; //indicates whether the score has been collected
@@ -39,4 +39,22 @@ public class ScoreZone {
 	public boolean isUsed() {
 		return this.used;
 	}
+	
+	// Gets the x-coordinate of the left edge of the ScoreZone
+	public int getX() {
+		return this.x1;
+	}
+	
+	// Gets the y-coordinate of the top edge of the ScoreZone
+	public int getY() {
+		return this.y1;
+	}
+	
+	// Moves the ScoreZone, keeping its size
+	public void moveTo(int x, int y, int vx, int vy) {
+		this.x2 += x - this.x1;
+		this.y2 += y - this.y1;
+		this.x1 = x;
+		this.y1 = y;
+	}
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package floatingmaze;
 
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.File;
@@ -41,14 +43,127 @@ public class ScreenData {
         }
     }
     
-    // Gets a scaled down BufferedImage of the JPanel
-    public static BufferedImage getRescaledImage(JPanel jpanel, int res) {
+    // Returns the grayscale pixels of a JPanel at several resolutions, each downscaled by a power of two factor.
+    // The JPanel is painted once and every level is the exact average of the pixel blocks it covers
+    public static byte[][] getPixelPyramid(JPanel jpanel, int[] factors) {
+    	int maxFactor = 1;
+    	for (int factor : factors) {
+    		if (factor < 1 || Integer.bitCount(factor) != 1) {
+    			throw new IllegalArgumentException("Pyramid factors must be powers of two: " + factor);
+    		}
+    		maxFactor = Math.max(maxFactor, factor);
+    	}
+    	int width = jpanel.getWidth();
+    	int height = jpanel.getHeight();
+    	byte[] pixels = ((DataBufferByte) getImage(jpanel).getRaster().getDataBuffer()).getData(); //pixels in format {B,G,R,B,G,R,...}
+    	int[] sums = new int[width * height]; //sum of the pixel values covered by each pixel of the current level
+    	for (int k = 0; k < sums.length; k++) {
+    		sums[k] = pixels[3 * k] & 0xff; //since the game is grayscaled, any channel is equivalent to grayscaled data
+    	}
+    	
+    	byte[][] result = new byte[factors.length][];
+    	for (int factor = 1; ; factor *= 2) {
+    		for (int i = 0; i < factors.length; i++) {
+    			if (factors[i] == factor) {
+    				result[i] = averageSums(sums, width * height, factor * factor);
+    			}
+    		}
+    		if (factor == maxFactor) {
+    			return result;
+    		}
+    		
+    		//halve the resolution by summing 2x2 blocks in place, dropping an odd last row or column
+    		int halfWidth = width / 2;
+    		int halfHeight = height / 2;
+    		for (int y = 0; y < halfHeight; y++) {
+    			int top = 2 * y * width;
+    			int bottom = top + width;
+    			for (int x = 0; x < halfWidth; x++) {
+    				sums[y * halfWidth + x] = sums[top + 2 * x] + sums[top + 2 * x + 1] + sums[bottom + 2 * x] + sums[bottom + 2 * x + 1];
+    			}
+    		}
+    		width = halfWidth;
+    		height = halfHeight;
+    	}
+    }
+    
+    // Returns the grayscale pixels of a window of size Constants.viewportWidth x Constants.viewportHeight centered on the
+    // player, downscaled by a factor res. Only the visible part of the world is painted, and everything outside the
+    // world is filled with Constants.paddingColor. If minimap is set, a view of the whole world of the same size follows
+    public static byte[] getViewportPixels(World world, int res, boolean minimap) {
+    	int width = Constants.viewportWidth;
+    	int height = Constants.viewportHeight;
+    	Rectangle area = world.getViewArea(width, height);
+    	Rectangle visible = area.intersection(new Rectangle(0, 0, Constants.worldWidth, Constants.worldHeight));
+    	BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+    	Graphics2D g = img.createGraphics();
+    	g.setColor(Constants.paddingColor);
+    	g.fillRect(0, 0, width, height);
+    	if (!visible.isEmpty()) {
+    		g.translate(-area.x, -area.y);
+    		g.clipRect(visible.x, visible.y, visible.width, visible.height); //keep the padding outside the world
+    		world.paintArea(g, visible);
+    	}
+    	g.dispose();
+    	byte[] view = averageBlocks(((DataBufferByte) img.getRaster().getDataBuffer()).getData(), width, height, res);
+    	if (!minimap) {
+    		return view;
+    	}
+    	
+    	BufferedImage map = new BufferedImage(width / res, height / res, BufferedImage.TYPE_3BYTE_BGR);
+    	world.paintMinimap(map);
+    	byte[] mapPixels = averageBlocks(((DataBufferByte) map.getRaster().getDataBuffer()).getData(), width / res, height / res, 1);
+    	byte[] result = new byte[view.length + mapPixels.length];
+    	System.arraycopy(view, 0, result, 0, view.length);
+    	System.arraycopy(mapPixels, 0, result, view.length, mapPixels.length);
+    	return result;
+    }
+    
+    // Converts pixels in format {B,G,R,B,G,R,...} to grayscale, averaging blocks of factor x factor pixels
+    private static byte[] averageBlocks(byte[] pixels, int width, int height, int factor) {
+    	int outWidth = width / factor;
+    	int outHeight = height / factor;
+    	int area = factor * factor;
+    	byte[] result = new byte[outWidth * outHeight];
+    	for (int y = 0; y < outHeight; y++) {
+    		for (int x = 0; x < outWidth; x++) {
+    			int sum = 0;
+    			for (int dy = 0; dy < factor; dy++) {
+    				int row = (y * factor + dy) * width + x * factor;
+    				for (int dx = 0; dx < factor; dx++) {
+    					sum += pixels[3 * (row + dx)] & 0xff; //since the game is grayscaled, any channel is equivalent to grayscaled data
+    				}
+    			}
+    			result[y * outWidth + x] = (byte) ((sum + area / 2) / area);
+    		}
+    	}
+    	return result;
+    }
+    
+    // Converts the pixel sums of a pyramid level to rounded averages
+    private static byte[] averageSums(int[] sums, int length, int area) {
+    	byte[] result = new byte[length];
+    	for (int k = 0; k < length; k++) {
+    		result[k] = (byte) ((sums[k] + area / 2) / area);
+    	}
+    	return result;
+    }
+    
+    // Paints the JPanel to a full resolution BufferedImage
+    private static BufferedImage getImage(JPanel jpanel) {
         BufferedImage img = new BufferedImage(jpanel.getWidth(), jpanel.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        BufferedImage rescaled = new BufferedImage(jpanel.getWidth() / res, jpanel.getHeight() / res, BufferedImage.TYPE_3BYTE_BGR);
         Graphics g = img.getGraphics();
         jpanel.paint(g);
-        g = rescaled.createGraphics();
-        g.drawImage(img, 0, 0, jpanel.getWidth() / res, jpanel.getWidth() / res, null);
+        g.dispose();
+        return img;
+    }
+    
+    // Gets a scaled down BufferedImage of the JPanel
+    public static BufferedImage getRescaledImage(JPanel jpanel, int res) {
+        BufferedImage img = getImage(jpanel);
+        BufferedImage rescaled = new BufferedImage(jpanel.getWidth() / res, jpanel.getHeight() / res, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics g = rescaled.createGraphics();
+        g.drawImage(img, 0, 0, jpanel.getWidth() / res, jpanel.getHeight() / res, null);
         g.dispose();
         return rescaled;
     }
@@ -0,0 +1,146 @@
+package floatingmaze;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Spectator --- Watches a World at a capped frame rate, either in a window or by saving PNG frames to a directory.
+ * Worlds larger than the screen are followed around the player, showing at most screenWidth x screenHeight pixels.
+ *
+ * The Spectator asks the World for a WorldSnapshot once per frame, which the stepping thread publishes after its
+ * next update. All painting and file writing is done on the Spectator's own thread, and frames are skipped rather
+ * than queued if it cannot keep up.
+ */
+public class Spectator {
+	private World world;
+	private int fps;
+	private File frameDir; //the directory to save frames to, or null to show a window
+	private ScheduledExecutorService executor;
+	private WorldSnapshot lastSnapshot; //the last snapshot that was drawn
+	private int frameCount;
+	private volatile JFrame frame; //created on the event dispatch thread
+	private volatile ImagePanel panel;
+
+	// Creates a Spectator that shows the World in a window
+	public Spectator(World world, int fps) {
+		this(world, fps, null);
+	}
+
+	// Creates a Spectator that saves the frames of the World to a directory
+	public Spectator(World world, int fps, File frameDir) {
+		if (fps < 1 || fps > 1000) {
+			throw new IllegalArgumentException("The frame rate must be between 1 and 1000 frames per second: " + fps);
+		}
+		this.world = world;
+		this.fps = fps;
+		this.frameDir = frameDir;
+	}
+
+	// Starts watching the World
+	public void start() {
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "Spectator");
+			t.setDaemon(true);
+			return t;
+		}); //created first, so that closing the window can stop it
+		if (this.frameDir != null) {
+			this.frameDir.mkdirs();
+		}
+		else {
+			SwingUtilities.invokeLater(() -> {
+				this.frame = new JFrame("Levitation Simulation (spectator)");
+				this.panel = new ImagePanel();
+				this.panel.setPreferredSize(World.getSpectatorSize());
+				this.frame.getContentPane().add(this.panel);
+				this.frame.pack();
+				this.frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+				this.frame.addWindowListener(new WindowAdapter() {
+					@Override
+					public void windowClosed(WindowEvent e) {
+						//closing the window stops the copying as well, without blocking the event dispatch thread
+						executor.shutdown();
+						world.clearSnapshot();
+					}
+				});
+				this.frame.setVisible(true);
+			});
+		}
+		this.world.requestSnapshot();
+		this.executor.scheduleAtFixedRate(this::drawFrame, 0, 1000000 / this.fps, TimeUnit.MICROSECONDS);
+	}
+
+	// Stops watching the World, after which it no longer publishes snapshots
+	public void stop() {
+		this.executor.shutdown();
+		try {
+			this.executor.awaitTermination(1, TimeUnit.SECONDS); //let a frame being drawn finish before clearing the snapshot
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.world.clearSnapshot();
+		if (this.frame != null) {
+			SwingUtilities.invokeLater(() -> this.frame.dispose());
+		}
+	}
+
+	// Draws the latest snapshot, if it has changed since the last frame
+	private void drawFrame() {
+		if (this.executor.isShutdown()) { //the window was closed while the frame was scheduled
+			return;
+		}
+		WorldSnapshot snapshot = this.world.getSnapshot();
+		this.world.requestSnapshot(); //the next frame is copied after the next update
+		if (snapshot == null || snapshot == this.lastSnapshot) {
+			return;
+		}
+		this.lastSnapshot = snapshot;
+		Rectangle area = snapshot.getArea();
+		BufferedImage img = new BufferedImage(area.width, area.height, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics g = img.getGraphics();
+		g.translate(-area.x, -area.y);
+		snapshot.paint(g);
+		g.dispose();
+
+		if (this.frameDir != null) {
+			File outputfile = new File(this.frameDir, String.format("frame_%06d.png", this.frameCount++));
+			try {
+				ImageIO.write(img, "png", outputfile);
+			} catch(Exception e) {
+				System.out.println("Could not create file: " + e.getMessage());
+			}
+		}
+		else if (this.panel != null) {
+			this.panel.image = img;
+			this.panel.repaint();
+		}
+	}
+
+	/**
+	 * ImagePanel --- Shows the latest frame drawn by the Spectator.
+	 */
+	private static class ImagePanel extends JPanel {
+		private static final long serialVersionUID = 1L;
+
+		private volatile BufferedImage image;
+
+		@Override
+		public void paintComponent(Graphics g) {
+			super.paintComponent(g);
+			BufferedImage img = this.image;
+			if (img != null) {
+				g.drawImage(img, 0, 0, null);
+			}
+		}
+	}
+}
@@ -3,8 +3,9 @@ package floatingmaze;
 /**
  * Wall --- Represents a wall which bounces the player upon impact.
  */
-public class Wall {
+public class Wall implements Movable {
 	public int x1, x2, y1, y2;
+	public int vx, vy; //the velocity of the Wall, in pixels per time step
 	
 	public Wall(int x1, int x2, int y1, int y2) {
 		this.x1 = x1;
@@ -66,4 +67,24 @@ public class Wall {
 			return Collision.NONE;
 		}
 	}
+	
+	// Gets the x-coordinate of the left edge of the Wall
+	public int getX() {
+		return this.x1;
+	}
+	
+	// Gets the y-coordinate of the top edge of the Wall
+	public int getY() {
+		return this.y1;
+	}
+	
+	// Moves the Wall, keeping its size. The velocity is used when bouncing the player
+	public void moveTo(int x, int y, int vx, int vy) {
+		this.x2 += x - this.x1;
+		this.y2 += y - this.y1;
+		this.x1 = x;
+		this.y1 = y;
+		this.vx = vx;
+		this.vy = vy;
+	}
 }
\ No newline at end of file
@@ -1,11 +1,20 @@
 package floatingmaze;
 
+import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.JPanel;
 import javax.swing.Timer;
 
@@ -21,6 +30,12 @@ public class World extends JPanel implements ActionListener {
 	private ArrayList<Wall> ws;
 	private ArrayList<Goal> gs;
 	private ArrayList<ScoreZone> szs;
+	private ArrayList<Motion> ms;
+	private Set<Movable> moving; //the obstacles moved by a Motion
+	private BufferedImage minimapLayer; //the cached background and static obstacles of the minimap, or null if outdated
+	private int tick; //the number of time steps since the last reset
+	private volatile boolean snapshotWanted; //set by a Spectator when it is ready to draw a new frame
+	private AtomicReference<WorldSnapshot> snapshot;
 	
 	// Instantiates the world
 	public World(Player p, boolean trainingMode) {
@@ -30,6 +45,9 @@ public class World extends JPanel implements ActionListener {
 		this.dws = new ArrayList<DeathWall>();
 		this.gs = new ArrayList<Goal>();
 		this.szs = new ArrayList<ScoreZone>();
+		this.ms = new ArrayList<Motion>();
+		this.moving = Collections.newSetFromMap(new IdentityHashMap<Movable, Boolean>());
+		this.snapshot = new AtomicReference<WorldSnapshot>();
 		
 		//if not launched in training mode, listen for key presses
 		if (!this.trainingMode) {
@@ -75,6 +93,22 @@ public class World extends JPanel implements ActionListener {
 		return RLInfo;
 	}
 	
+	// Updates the world one training step given an action index, {0: UP, 1: DOWN, 2: LEFT, 3: RIGHT, other: no input}
+	public int[] trainingStepAction(int action, boolean acc) {
+		switch (action) {
+			case 0:
+				return this.trainingStepRL(Direction.UP, acc);
+			case 1:
+				return this.trainingStepRL(Direction.DOWN, acc);
+			case 2:
+				return this.trainingStepRL(Direction.LEFT, acc);
+			case 3:
+				return this.trainingStepRL(Direction.RIGHT, acc);
+			default:
+				return this.trainingStepRL();
+		}
+	}
+	
 	// Updates the player position one step, based on input
 	private void stepPlayer(Direction input, boolean acc) {
 		if (acc) {
@@ -85,9 +119,15 @@ public class World extends JPanel implements ActionListener {
 		}
 	}
 	
-	// Updates and redraws the world
+	// Updates the world, and redraws it when not in training mode
 	public boolean update() {
 		boolean finished = false; //whether the game is finished or not
+		
+		//move the moving obstacles in place, before the player so that it bounces off their new positions
+		this.tick++;
+		for (Motion m : this.ms) {
+			m.step(this.tick);
+		}
 		this.p.stepPosition(this.ws); //update the player coordinates
 		
 		//check for collisions with DeathWalls
@@ -102,6 +142,7 @@ public class World extends JPanel implements ActionListener {
 			if (!z.isUsed() && z.contains(this.p)) {
 				p.addScore(z.getScore());
 				z.setStatus(true);
+				this.minimapLayer = null; //the collected ScoreZone disappears
 				break;
 			}
 		}
@@ -114,7 +155,14 @@ public class World extends JPanel implements ActionListener {
 			}
 		}
 		
-		this.repaint();
+		//in training mode nothing is painted, but a Spectator can ask for a copy of the state when it needs a frame
+		if (this.snapshotWanted) {
+			this.snapshotWanted = false;
+			this.snapshot.set(this.createSnapshot());
+		}
+		if (!this.trainingMode) {
+			this.repaint();
+		}
 		return finished;
 	}
 	
@@ -125,28 +173,47 @@ public class World extends JPanel implements ActionListener {
 		this.p.setPosition(Constants.startingX, Constants.startingY);
 		this.p.setScore(0);
 		for (ScoreZone z : this.szs) {
-			z.setStatus(false);
+			if (z.isUsed()) {
+				z.setStatus(false);
+				this.minimapLayer = null;
+			}
+		}
+		this.tick = 0;
+		for (Motion m : this.ms) {
+			m.step(this.tick);
 		}
 	}
 	
 	// Adds a new Wall to the world
 	public void addWall(Wall w) {
 		this.ws.add(w);
+		this.minimapLayer = null;
 	}
 	
 	// Adds a new DeathWall to the world
 	public void addDeathWall(DeathWall dw) {
 		this.dws.add(dw);
+		this.minimapLayer = null;
 	}
 	
 	// Adds a Goal to the world
 	public void addGoal(Goal g) {
 		this.gs.add(g);
+		this.minimapLayer = null;
 	}
 	
 	// Adds a ScoreZone to the world
 	public void addScoreZone(ScoreZone z) {
 		this.szs.add(z);
+		this.minimapLayer = null;
+	}
+	
+	// Adds a Motion that moves an obstacle in the world every time step, placing the obstacle at its current position
+	public void addMotion(Motion m) {
+		this.ms.add(m);
+		this.moving.add(m.getObstacle());
+		this.minimapLayer = null;
+		m.step(this.tick);
 	}
 	
 	// Clears the world
@@ -155,6 +222,9 @@ public class World extends JPanel implements ActionListener {
 		this.dws = new ArrayList<DeathWall>();
 		this.gs = new ArrayList<Goal>();
 		this.szs = new ArrayList<ScoreZone>();
+		this.ms = new ArrayList<Motion>();
+		this.moving.clear();
+		this.minimapLayer = null;
 	}
 	
 	// Returns the (x,y)-coordinates of the player
@@ -162,44 +232,93 @@ public class World extends JPanel implements ActionListener {
 		return new int[] {this.p.getXPosition(), this.p.getYPosition()};
 	}
 	
+	// Gets the area of a given size centered on the player, which may extend outside the world
+	public Rectangle getViewArea(int width, int height) {
+		int centerX = this.p.getXPosition() + this.p.getSize() / 2;
+		int centerY = this.p.getYPosition() + this.p.getSize() / 2;
+		return new Rectangle(centerX - width / 2, centerY - height / 2, width, height);
+	}
+	
+	// Gets the size of the area shown by a Spectator, which is the world capped at the size of the screen
+	public static Dimension getSpectatorSize() {
+		return new Dimension(Math.min(Constants.screenWidth, Constants.worldWidth), Math.min(Constants.screenHeight, Constants.worldHeight));
+	}
+	
+	// Gets the area shown by a Spectator, centered on the player but kept inside the world
+	public Rectangle getSpectatorArea() {
+		Dimension size = getSpectatorSize();
+		Rectangle area = this.getViewArea(size.width, size.height);
+		area.x = Math.max(0, Math.min(area.x, Constants.worldWidth - size.width));
+		area.y = Math.max(0, Math.min(area.y, Constants.worldHeight - size.height));
+		return area;
+	}
+	
 	// Paints the JPanel
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		
-		//draw background
-		g.setColor(Constants.backgroundColor);
-		g.fillRect(0, 0, Constants.screenWidth, Constants.screenHeight);
-		
-		//draw Walls
-		g.setColor(Constants.wallColor);
-		for (Wall w : this.ws) {
-			g.fillRect(w.x1, w.y1, w.x2 - w.x1, w.y2 - w.y1);
-		}
-		
-		//draw DeathWalls
-		g.setColor(Constants.deathWallColor);
-		for (DeathWall dw : this.dws) {
-			g.fillRect(dw.x1, dw.y1, dw.x2 - dw.x1, dw.y2 - dw.y1);
-		}
-		
-		//draw ScoreZones
-		g.setColor(Constants.scoreZoneColor);
-		for (ScoreZone z : this.szs) {
-			if (!z.isUsed()) {
-				g.fillRect(z.x1, z.y1, z.x2 - z.x1, z.y2 - z.y1);
-			}
-		}
-		
-		//draw Goals
-		g.setColor(Constants.goalColor);
-		for (Goal goal : this.gs) {
-			g.fillRect(goal.x1, goal.y1, goal.x2 - goal.x1, goal.y2 - goal.y1);
+		Rectangle clip = g.getClipBounds();
+		this.paintArea(g, clip != null ? clip : new Rectangle(0, 0, this.getWidth(), this.getHeight()));
+	}
+	
+	// Paints the part of the world inside an area, in world coordinates. Objects outside the area are skipped,
+	// so the cost follows the size of the area rather than the size of the world
+	public void paintArea(Graphics g, Rectangle area) {
+		this.createSnapshot(area).paint(g);
+	}
+	
+	// Paints the whole world scaled down to the size of an image. The background and the obstacles that never move
+	// are drawn once into a cached layer, and only the moving obstacles and the player are drawn on top of it
+	public void paintMinimap(BufferedImage map) {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		Rectangle world = new Rectangle(0, 0, Constants.worldWidth, Constants.worldHeight);
+		if (this.minimapLayer == null || this.minimapLayer.getWidth() != width || this.minimapLayer.getHeight() != height) {
+			this.minimapLayer = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D g = this.minimapLayer.createGraphics();
+			setUpMinimap(g, width, height);
+			new WorldSnapshot(world, true, null, this.ws, this.dws, this.szs, this.gs, o -> !this.moving.contains(o)).paint(g);
+			g.dispose();
 		}
 		
-		//draw player
-		g.setColor(Constants.playerColor);
-		g.fillOval(p.getXPosition(), p.getYPosition(), p.getSize(), p.getSize());
+		Graphics2D g = map.createGraphics();
+		g.drawImage(this.minimapLayer, 0, 0, null);
+		setUpMinimap(g, width, height);
+		new WorldSnapshot(world, false, this.p, this.ws, this.dws, this.szs, this.gs, this.moving::contains).paint(g);
+		g.dispose();
+	}
+	
+	// Sets up the Graphics of a minimap of a given size, so that the cached layer and the moving parts are drawn in the same way
+	private static void setUpMinimap(Graphics2D g, int width, int height) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); //keep small objects visible
+		g.scale(width / (double) Constants.worldWidth, height / (double) Constants.worldHeight);
+	}
+	
+	// Copies the current state of the world inside the area shown by a Spectator, which can then be painted from another thread
+	public WorldSnapshot createSnapshot() {
+		return this.createSnapshot(this.getSpectatorArea());
+	}
+	
+	// Copies the current state of the world inside an area
+	public WorldSnapshot createSnapshot(Rectangle area) {
+		return new WorldSnapshot(area, this.p, this.ws, this.dws, this.szs, this.gs);
+	}
+	
+	// Asks for a snapshot to be published after the next update, so that at most one copy is made per requested frame
+	public void requestSnapshot() {
+		this.snapshotWanted = true;
+	}
+	
+	// Stops publishing snapshots and drops the latest one
+	public void clearSnapshot() {
+		this.snapshotWanted = false;
+		this.snapshot.set(null);
+	}
+	
+	// Gets the latest published snapshot, or null if none has been published
+	public WorldSnapshot getSnapshot() {
+		return this.snapshot.get();
 	}
 	
 	// When not in training mode, listens for key events
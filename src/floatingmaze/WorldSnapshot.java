@@ -0,0 +1,124 @@
+package floatingmaze;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * WorldSnapshot --- An immutable copy of everything that is drawn inside an area of a World, which can be painted
+ * from any thread. Only the obstacles intersecting the area are copied, so the cost follows the size of the area
+ * rather than the size of the world.
+ *
+ * All drawing of a World goes through WorldSnapshot.paint, so the window, the observations, the minimap and the
+ * Spectator always agree on the colors and the drawing order.
+ */
+public class WorldSnapshot {
+	private final Rectangle area; //the part of the world that is copied, in world coordinates
+	private final boolean background; //whether the background of the area is drawn
+	private final int[] walls, deathWalls, scoreZones, goals; //rectangles in the format {x, y, width, height, x, y, ...}
+	private final boolean hasPlayer;
+	private final int playerX, playerY, playerSize;
+
+	// Copies the background, the obstacles and the player inside an area
+	public WorldSnapshot(Rectangle area, Player p, ArrayList<Wall> ws, ArrayList<DeathWall> dws, ArrayList<ScoreZone> szs, ArrayList<Goal> gs) {
+		this(area, true, p, ws, dws, szs, gs, o -> true);
+	}
+
+	// Copies the obstacles inside an area that are accepted by a filter, with or without the background. The player
+	// is left out if null
+	public WorldSnapshot(Rectangle area, boolean background, Player p, ArrayList<Wall> ws, ArrayList<DeathWall> dws,
+			ArrayList<ScoreZone> szs, ArrayList<Goal> gs, Predicate<Movable> filter) {
+		this.area = new Rectangle(area);
+		this.background = background;
+		int n = 0;
+		int[] rects = new int[4 * ws.size()];
+		for (Wall w : ws) {
+			n = addRect(rects, n, filter.test(w), w.x1, w.x2, w.y1, w.y2);
+		}
+		this.walls = Arrays.copyOf(rects, 4 * n);
+		n = 0;
+		rects = new int[4 * dws.size()];
+		for (DeathWall dw : dws) {
+			n = addRect(rects, n, filter.test(dw), dw.x1, dw.x2, dw.y1, dw.y2);
+		}
+		this.deathWalls = Arrays.copyOf(rects, 4 * n);
+		n = 0;
+		rects = new int[4 * szs.size()];
+		for (ScoreZone z : szs) {
+			//collected ScoreZones are not drawn
+			n = addRect(rects, n, !z.isUsed() && filter.test(z), z.x1, z.x2, z.y1, z.y2);
+		}
+		this.scoreZones = Arrays.copyOf(rects, 4 * n);
+		n = 0;
+		rects = new int[4 * gs.size()];
+		for (Goal g : gs) {
+			n = addRect(rects, n, filter.test(g), g.x1, g.x2, g.y1, g.y2);
+		}
+		this.goals = Arrays.copyOf(rects, 4 * n);
+		this.hasPlayer = p != null;
+		this.playerX = this.hasPlayer ? p.getXPosition() : 0;
+		this.playerY = this.hasPlayer ? p.getYPosition() : 0;
+		this.playerSize = this.hasPlayer ? p.getSize() : 0;
+	}
+
+	// Stores a rectangle as the n:th one in an array if it is accepted and intersects the area, and returns the new
+	// number of rectangles
+	private int addRect(int[] rects, int n, boolean accepted, int x1, int x2, int y1, int y2) {
+		if (!accepted || !this.area.intersects(x1, y1, x2 - x1, y2 - y1)) {
+			return n;
+		}
+		rects[4 * n] = x1;
+		rects[4 * n + 1] = y1;
+		rects[4 * n + 2] = x2 - x1;
+		rects[4 * n + 3] = y2 - y1;
+		return n + 1;
+	}
+
+	// Fills the rectangles in an array
+	private static void fillRects(Graphics g, int[] rects) {
+		for (int i = 0; i < rects.length; i += 4) {
+			g.fillRect(rects[i], rects[i + 1], rects[i + 2], rects[i + 3]);
+		}
+	}
+
+	// Paints the snapshot in world coordinates
+	public void paint(Graphics g) {
+		//draw background
+		if (this.background) {
+			g.setColor(Constants.backgroundColor);
+			Rectangle world = this.area.intersection(new Rectangle(0, 0, Constants.worldWidth, Constants.worldHeight));
+			if (!world.isEmpty()) {
+				g.fillRect(world.x, world.y, world.width, world.height);
+			}
+		}
+
+		//draw Walls
+		g.setColor(Constants.wallColor);
+		fillRects(g, this.walls);
+
+		//draw DeathWalls
+		g.setColor(Constants.deathWallColor);
+		fillRects(g, this.deathWalls);
+
+		//draw ScoreZones
+		g.setColor(Constants.scoreZoneColor);
+		fillRects(g, this.scoreZones);
+
+		//draw Goals
+		g.setColor(Constants.goalColor);
+		fillRects(g, this.goals);
+
+		//draw player
+		if (this.hasPlayer) {
+			g.setColor(Constants.playerColor);
+			g.fillOval(this.playerX, this.playerY, this.playerSize, this.playerSize);
+		}
+	}
+
+	// Gets the area of the world that is copied
+	public Rectangle getArea() {
+		return new Rectangle(this.area);
+	}
+}